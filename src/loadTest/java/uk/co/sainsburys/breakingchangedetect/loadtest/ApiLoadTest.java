@@ -0,0 +1,134 @@
+package uk.co.sainsburys.breakingchangedetect.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drives the comparison and CRUD endpoints concurrently at fixed arrival rates and writes
+ * throughput and latency percentiles per endpoint to {@code loadtest.output} as JSON.
+ * <p>
+ * Run with {@code ./gradlew loadTest}; see {@link LoadTestSettings} for the tunable properties.
+ * </p>
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ApiLoadTest {
+
+    private static final LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+
+    private static StubSpecServer oldSpecServer;
+
+    private static StubSpecServer newSpecServer;
+
+    @LocalServerPort
+    private int port;
+
+    @DynamicPropertySource
+    static void specServers(DynamicPropertyRegistry registry) {
+        oldSpecServer = StubSpecServer.start(SpecGenerator.generate(settings.specPaths(), false));
+        newSpecServer = StubSpecServer.start(SpecGenerator.generate(settings.specPaths(), true));
+        registry.add("comparison.jar-spec-url", oldSpecServer::specUrl);
+        registry.add("comparison.live-spec-url", newSpecServer::specUrl);
+        // Every request comes from localhost, so simulated clients are told apart by X-Client-Id
+        registry.add("comparison.bulkhead.trust-client-id-header", () -> "true");
+    }
+
+    @AfterAll
+    static void stopSpecServers() {
+        if (oldSpecServer != null) {
+            oldSpecServer.close();
+        }
+        if (newSpecServer != null) {
+            newSpecServer.close();
+        }
+    }
+
+    @Test
+    void reportsLatencyPerEndpointUnderConcurrentLoad() throws Exception {
+        seedBooks();
+
+        List<EndpointResult> results = new ArrayList<>();
+        ExecutorService drivers = Executors.newFixedThreadPool(3);
+        try (OpenModelLoadGenerator generator = new OpenModelLoadGenerator()) {
+            // All endpoints run at once so CRUD latency is measured while comparisons are in flight
+            List<CompletableFuture<EndpointResult>> runs = new ArrayList<>();
+            if (settings.compareRate() > 0) {
+                runs.add(CompletableFuture.supplyAsync(() -> generator.run(
+                        "compare", uri("/api/comparison/compare"), settings.compareRate(), settings.duration(),
+                        i -> HttpRequest.newBuilder().GET().header("X-Client-Id", "loadtest-" + i % settings.clients())),
+                        drivers));
+            }
+            if (settings.crudRate() > 0) {
+                runs.add(CompletableFuture.supplyAsync(() -> generator.run(
+                        "books", uri("/api/books"), settings.crudRate(), settings.duration(),
+                        i -> HttpRequest.newBuilder().GET()), drivers));
+                runs.add(CompletableFuture.supplyAsync(() -> generator.run(
+                        "person", uri("/api/person"), settings.crudRate(), settings.duration(),
+                        i -> HttpRequest.newBuilder().GET()), drivers));
+            }
+            runs.forEach(run -> results.add(run.join()));
+        } finally {
+            drivers.shutdownNow();
+        }
+
+        writeReport(results);
+
+        // Rejections and failures are reported, but a run where nothing succeeds measured nothing useful
+        assertThat(results).allSatisfy(result -> assertThat(result.success().count())
+                .as("successful responses from %s", result.name())
+                .isPositive());
+    }
+
+    private void seedBooks() throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        for (int i = 0; i < settings.seedBooks(); i++) {
+            HttpRequest request = HttpRequest.newBuilder(uri("/api/books"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(
+                            "{\"name\":\"Book " + i + "\",\"author\":\"Author " + i % 10 + "\"}"))
+                    .build();
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            assertThat(response.statusCode()).as("seeding book %d", i).isBetween(200, 299);
+        }
+    }
+
+    private void writeReport(List<EndpointResult> results) throws IOException {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("timestamp", Instant.now().toString());
+        report.put("durationSeconds", settings.duration().toSeconds());
+        report.put("specPaths", settings.specPaths());
+        report.put("clients", settings.clients());
+        report.put("endpoints", results);
+
+        Files.createDirectories(settings.output().toAbsolutePath().getParent());
+        new ObjectMapper()
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(settings.output().toFile(), report);
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+}
@@ -0,0 +1,63 @@
+package uk.co.sainsburys.breakingchangedetect.loadtest;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Outcome of driving one endpoint. Latencies are measured from each request's scheduled send time,
+ * so a stalled server shows up as queueing delay rather than as fewer requests.
+ * <p>
+ * Every sent request falls into exactly one outcome, each with its own throughput and latency distribution,
+ * so fast rejections from admission control cannot make the successful responses look quicker:
+ * <li>success: a 2xx response</li>
+ * <li>rejected: any other HTTP status, e.g. 429/503 from admission control</li>
+ * <li>failed: no response, either a transport error or timeout, or still outstanding when the run ended
+ * (its latency is how long it had been waiting by then)</li>
+ * </p>
+ */
+record EndpointResult(
+        String name,
+        String method,
+        String path,
+        double targetRate,
+        long sent,
+        Map<Integer, Long> statusCounts,
+        long errors,
+        long outstanding,
+        double drainSeconds,
+        Outcome success,
+        Outcome rejected,
+        Outcome failed) {
+
+    record Outcome(long count, double throughputPerSecond, Map<String, Double> latencyMs) {
+
+        static Outcome of(long[] latenciesNanos, double activeSeconds) {
+            return new Outcome(latenciesNanos.length, latenciesNanos.length / activeSeconds, percentiles(latenciesNanos));
+        }
+    }
+
+    static Map<String, Double> percentiles(long[] latenciesNanos) {
+        long[] sorted = latenciesNanos.clone();
+        Arrays.sort(sorted);
+        Map<String, Double> result = new LinkedHashMap<>();
+        result.put("p50", toMillis(percentile(sorted, 50.0)));
+        result.put("p99", toMillis(percentile(sorted, 99.0)));
+        result.put("p999", toMillis(percentile(sorted, 99.9)));
+        result.put("max", toMillis(sorted.length == 0 ? 0 : sorted[sorted.length - 1]));
+        return result;
+    }
+
+    // Nearest-rank percentile over an already sorted array
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
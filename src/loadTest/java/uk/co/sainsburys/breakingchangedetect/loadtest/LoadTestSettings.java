@@ -0,0 +1,58 @@
+package uk.co.sainsburys.breakingchangedetect.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Load-test knobs, read from {@code loadtest.*} system properties so runs can be tuned from the Gradle command line.
+ * A rate of 0 skips that endpoint.
+ */
+record LoadTestSettings(
+        Duration duration,
+        double compareRate,
+        double crudRate,
+        int specPaths,
+        int clients,
+        int seedBooks,
+        Path output) {
+
+    private static final double MAX_RATE = 1e9;
+
+    LoadTestSettings {
+        if (duration.toSeconds() < 1) {
+            throw new IllegalArgumentException("loadtest.durationSeconds must be at least 1, was " + duration.toSeconds());
+        }
+        requireRate("loadtest.compareRate", compareRate);
+        requireRate("loadtest.crudRate", crudRate);
+        if (compareRate == 0 && crudRate == 0) {
+            throw new IllegalArgumentException("At least one of loadtest.compareRate and loadtest.crudRate must be above 0");
+        }
+        if (specPaths < 1) {
+            throw new IllegalArgumentException("loadtest.specPaths must be at least 1, was " + specPaths);
+        }
+        if (clients < 1) {
+            throw new IllegalArgumentException("loadtest.clients must be at least 1, was " + clients);
+        }
+        if (seedBooks < 0) {
+            throw new IllegalArgumentException("loadtest.seedBooks must not be negative, was " + seedBooks);
+        }
+    }
+
+    static LoadTestSettings fromSystemProperties() {
+        return new LoadTestSettings(
+                Duration.ofSeconds(Long.getLong("loadtest.durationSeconds", 20)),
+                Double.parseDouble(System.getProperty("loadtest.compareRate", "5")),
+                Double.parseDouble(System.getProperty("loadtest.crudRate", "50")),
+                Integer.getInteger("loadtest.specPaths", 200),
+                Integer.getInteger("loadtest.clients", 8),
+                Integer.getInteger("loadtest.seedBooks", 100),
+                Path.of(System.getProperty("loadtest.output", "build/load-test/results.json")));
+    }
+
+    private static void requireRate(String property, double rate) {
+        // Written as a negated range check so NaN is rejected too
+        if (!(rate >= 0 && rate <= MAX_RATE)) {
+            throw new IllegalArgumentException(property + " must be between 0 and " + MAX_RATE + ", was " + rate);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package uk.co.sainsburys.breakingchangedetect.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongFunction;
+
+/**
+ * Sends requests at a fixed arrival rate regardless of how quickly earlier ones complete (an open workload model),
+ * so slow responses pile up as they would with real independent callers instead of throttling the generator.
+ */
+final class OpenModelLoadGenerator implements AutoCloseable {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private static final Duration DRAIN_GRACE = REQUEST_TIMEOUT.multipliedBy(2);
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .executor(executor)
+            .build();
+
+    /**
+     * Drives one endpoint for the given duration.
+     *
+     * @param name     Label used in the report.
+     * @param uri      Target of every request.
+     * @param rate     Requests per second, validated by {@link LoadTestSettings}.
+     * @param duration How long to keep sending.
+     * @param request  Builds the i-th request; lets callers vary headers per request.
+     * @return Throughput and latency figures for the endpoint.
+     */
+    EndpointResult run(String name, URI uri, double rate, Duration duration,
+                       LongFunction<HttpRequest.Builder> request) {
+        long intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / rate));
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+
+        // Every request contributes one latency to exactly one outcome, see EndpointResult
+        ConcurrentLinkedQueue<Long> successLatencies = new ConcurrentLinkedQueue<>();
+        ConcurrentLinkedQueue<Long> rejectedLatencies = new ConcurrentLinkedQueue<>();
+        ConcurrentLinkedQueue<Long> failedLatencies = new ConcurrentLinkedQueue<>();
+        Map<Integer, LongAdder> statusCounts = new ConcurrentHashMap<>();
+        LongAdder errors = new LongAdder();
+        LongAccumulator lastCompletion = new LongAccumulator(Math::max, start);
+        List<SentRequest> sent = new ArrayList<>();
+        String method = "GET";
+
+        for (long i = 0; ; i++) {
+            long scheduled = start + i * intervalNanos;
+            // Difference rather than direct comparison so very long runs cannot overflow past the end
+            if (scheduled - end >= 0) {
+                break;
+            }
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            HttpRequest httpRequest = request.apply(i).uri(uri).timeout(REQUEST_TIMEOUT).build();
+            method = httpRequest.method();
+            SentRequest sentRequest = new SentRequest(scheduled);
+            sent.add(sentRequest);
+            sentRequest.response = client.sendAsync(httpRequest, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        long now = System.nanoTime();
+                        if (!sentRequest.recorded.compareAndSet(false, true)) {
+                            return;
+                        }
+                        long latency = now - scheduled;
+                        lastCompletion.accumulate(now);
+                        if (error != null) {
+                            // Includes timeouts, so their latency is at least REQUEST_TIMEOUT
+                            errors.increment();
+                            failedLatencies.add(latency);
+                            return;
+                        }
+                        int status = response.statusCode();
+                        statusCounts.computeIfAbsent(status, code -> new LongAdder()).increment();
+                        (status >= 200 && status < 300 ? successLatencies : rejectedLatencies).add(latency);
+                    });
+        }
+
+        CompletableFuture.allOf(sent.stream().map(it -> it.response).toArray(CompletableFuture[]::new))
+                .orTimeout(DRAIN_GRACE.toSeconds(), TimeUnit.SECONDS)
+                .exceptionally(error -> null)
+                .join();
+
+        long outstanding = 0;
+        long now = System.nanoTime();
+        for (SentRequest sentRequest : sent) {
+            if (sentRequest.recorded.compareAndSet(false, true)) {
+                outstanding++;
+                failedLatencies.add(now - sentRequest.scheduled);
+            }
+        }
+
+        Map<Integer, Long> counts = new TreeMap<>();
+        statusCounts.forEach((code, count) -> counts.put(code, count.sum()));
+
+        // Throughput runs up to the last response, not to the end of the grace period, so one stuck request
+        // shows up in outstanding and the failed percentiles rather than in a lower rate
+        double activeSeconds = Math.max(lastCompletion.get() - start, 1) / 1_000_000_000.0;
+        double drainSeconds = Math.max(lastCompletion.get() - end, 0) / 1_000_000_000.0;
+
+        return new EndpointResult(
+                name,
+                method,
+                uri.getPath(),
+                rate,
+                sent.size(),
+                counts,
+                errors.sum(),
+                outstanding,
+                drainSeconds,
+                EndpointResult.Outcome.of(toArray(successLatencies), activeSeconds),
+                EndpointResult.Outcome.of(toArray(rejectedLatencies), activeSeconds),
+                EndpointResult.Outcome.of(toArray(failedLatencies), activeSeconds));
+    }
+
+    private static long[] toArray(ConcurrentLinkedQueue<Long> latencies) {
+        return latencies.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private static final class SentRequest {
+
+        private final long scheduled;
+
+        private final AtomicBoolean recorded = new AtomicBoolean();
+
+        private CompletableFuture<?> response;
+
+        private SentRequest(long scheduled) {
+            this.scheduled = scheduled;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package uk.co.sainsburys.breakingchangedetect.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Generates OpenAPI 3 documents of a given size for the stub spec servers.
+ * <p>
+ * The "new" variant drops every 10th path and one response field from every 7th schema,
+ * so a comparison always has some breaking changes to report.
+ * </p>
+ */
+final class SpecGenerator {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private SpecGenerator() {
+    }
+
+    static String generate(int pathCount, boolean withBreakingChanges) {
+        Map<String, Object> paths = new LinkedHashMap<>();
+        Map<String, Object> schemas = new LinkedHashMap<>();
+
+        for (int i = 0; i < pathCount; i++) {
+            if (withBreakingChanges && i % 10 == 9) {
+                continue;
+            }
+            String schemaName = "Resource" + i;
+            paths.put("/api/resource" + i + "/{id}", Map.of("get", operation(schemaName)));
+            schemas.put(schemaName, schema(withBreakingChanges && i % 7 == 6));
+        }
+
+        Map<String, Object> document = new LinkedHashMap<>();
+        document.put("openapi", "3.0.1");
+        document.put("info", Map.of("title", "Generated spec", "version", withBreakingChanges ? "2" : "1"));
+        document.put("paths", paths);
+        document.put("components", Map.of("schemas", schemas));
+
+        try {
+            return MAPPER.writeValueAsString(document);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialise generated spec", e);
+        }
+    }
+
+    private static Map<String, Object> operation(String schemaName) {
+        // Parameters always declare "required" explicitly since the comparison unboxes it
+        List<Map<String, Object>> parameters = List.of(
+                Map.of("name", "id", "in", "path", "required", true, "schema", Map.of("type", "integer")),
+                Map.of("name", "page", "in", "query", "required", false, "schema", Map.of("type", "integer")));
+
+        Map<String, Object> content = Map.of("*/*",
+                Map.of("schema", Map.of("$ref", "#/components/schemas/" + schemaName)));
+
+        return Map.of(
+                "parameters", parameters,
+                "responses", Map.of("200", Map.of("description", "OK", "content", content)));
+    }
+
+    private static Map<String, Object> schema(boolean dropField) {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("id", Map.of("type", "integer"));
+        properties.put("name", Map.of("type", "string"));
+        properties.put("owner", Map.of(
+                "type", "object",
+                "properties", Map.of(
+                        "name", Map.of("type", "string"),
+                        "email", Map.of("type", "string"))));
+        if (!dropField) {
+            properties.put("description", Map.of("type", "string"));
+        }
+        return Map.of("type", "object", "properties", properties);
+    }
+}
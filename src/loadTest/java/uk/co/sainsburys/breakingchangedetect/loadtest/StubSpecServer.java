@@ -0,0 +1,56 @@
+package uk.co.sainsburys.breakingchangedetect.loadtest;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves a fixed OpenAPI document on {@code /v3/api-docs} from a random local port.
+ */
+final class StubSpecServer implements AutoCloseable {
+
+    private final HttpServer server;
+
+    private final ExecutorService executor;
+
+    private StubSpecServer(HttpServer server, ExecutorService executor) {
+        this.server = server;
+        this.executor = executor;
+    }
+
+    static StubSpecServer start(String spec) {
+        byte[] body = spec.getBytes(StandardCharsets.UTF_8);
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            server.createContext("/v3/api-docs", exchange -> {
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            });
+            ExecutorService executor = Executors.newCachedThreadPool();
+            server.setExecutor(executor);
+            server.start();
+            return new StubSpecServer(server, executor);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to start stub spec server", e);
+        }
+    }
+
+    String specUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/v3/api-docs";
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,9 @@
+package uk.co.sainsburys.breakingchangedetect.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(ComparisonBulkheadProperties.class)
+public class ComparisonBulkheadConfig {
+}
@@ -0,0 +1,52 @@
+package uk.co.sainsburys.breakingchangedetect.config;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * Limits applied to comparison traffic so it cannot starve the CRUD endpoints
+ * of request threads.
+ */
+@Data
+@Validated
+@ConfigurationProperties(prefix = "comparison.bulkhead")
+public class ComparisonBulkheadProperties {
+
+    /** Number of comparisons allowed to run at the same time. */
+    @Min(1)
+    private int maxConcurrent = 4;
+
+    /**
+     * Number of comparisons allowed to wait for a free slot before new ones are rejected with 503.
+     * With 0 a comparison is only admitted when a slot is free.
+     */
+    @Min(0)
+    private int queueCapacity = 16;
+
+    /** Number of running or waiting comparisons a single client may hold before it is rejected with 429. */
+    @Min(1)
+    private int perClientMaxConcurrent = 2;
+
+    /**
+     * How long a caller waits for a comparison before getting a 503. A comparison still queued by then
+     * is dropped; one already running keeps its slot and the client's quota until it finishes, which
+     * the comparison.spec-fetch timeouts must keep within this duration.
+     */
+    @NotNull
+    private Duration requestTimeout = Duration.ofSeconds(30);
+
+    /**
+     * Whether clients are identified by {@link #clientIdHeader}. The header is set by the caller,
+     * so only enable this behind a proxy that sets or strips it; otherwise the quota is keyed on
+     * the remote address.
+     */
+    private boolean trustClientIdHeader = false;
+
+    /** Request header identifying the client when {@link #trustClientIdHeader} is enabled. */
+    private String clientIdHeader = "X-Client-Id";
+}
@@ -1,14 +1,35 @@
 package uk.co.sainsburys.breakingchangedetect.config;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+
 @Configuration
 public class RestClientConfig {
 
+    // A comparison fetches the old and the new specification one after the other
+    private static final int SPEC_FETCHES_PER_COMPARISON = 2;
+
     @Bean
-    public RestTemplate restTemplate(){
-        return new RestTemplate();
+    public RestTemplate restTemplate(RestTemplateBuilder builder,
+                                     ComparisonBulkheadProperties bulkheadProperties,
+                                     @Value("${comparison.spec-fetch.connect-timeout}") Duration connectTimeout,
+                                     @Value("${comparison.spec-fetch.read-timeout}") Duration readTimeout){
+        // Bounded so a stalled spec server cannot hold a comparison slot past the caller's timeout
+        Duration fetchBudget = connectTimeout.plus(readTimeout).multipliedBy(SPEC_FETCHES_PER_COMPARISON);
+        if (fetchBudget.compareTo(bulkheadProperties.getRequestTimeout()) > 0) {
+            throw new IllegalStateException("comparison.spec-fetch timeouts allow a comparison to run for "
+                    + fetchBudget + ", longer than comparison.bulkhead.request-timeout "
+                    + bulkheadProperties.getRequestTimeout());
+        }
+
+        return builder
+                .setConnectTimeout(connectTimeout)
+                .setReadTimeout(readTimeout)
+                .build();
     }
 }
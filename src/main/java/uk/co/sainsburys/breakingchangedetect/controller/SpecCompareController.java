@@ -1,29 +1,79 @@
 package uk.co.sainsburys.breakingchangedetect.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.server.ResponseStatusException;
+import uk.co.sainsburys.breakingchangedetect.config.ComparisonBulkheadProperties;
+import uk.co.sainsburys.breakingchangedetect.service.ComparisonBulkhead;
 import uk.co.sainsburys.breakingchangedetect.service.SpecCompareService;
 
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 @RequestMapping("/api/comparison")
 public class SpecCompareController {
     private final SpecCompareService specCompareService;
 
+    private final ComparisonBulkhead comparisonBulkhead;
+
+    private final ComparisonBulkheadProperties bulkheadProperties;
+
+    @Value("${comparison.jar-spec-url}")
+    private String jarSpecUrl;
+
+    @Value("${comparison.live-spec-url}")
+    private String liveApiSpecUrl;
+
     @Autowired
-    public SpecCompareController(SpecCompareService specCompareService){
+    public SpecCompareController(SpecCompareService specCompareService,
+                                 ComparisonBulkhead comparisonBulkhead,
+                                 ComparisonBulkheadProperties bulkheadProperties){
         this.specCompareService = specCompareService;
+        this.comparisonBulkhead = comparisonBulkhead;
+        this.bulkheadProperties = bulkheadProperties;
     }
 
     @GetMapping("/compare")
-    public String compareSpecifications() {
-        String jarSpecUrl = "http://localhost:8080/v3/api-docs";
-        String liveApiSpecUrl = "http://localhost:8081/v3/api-docs";
+    public DeferredResult<String> compareSpecifications(HttpServletRequest request) {
+        DeferredResult<String> result = new DeferredResult<>(bulkheadProperties.getRequestTimeout().toMillis());
+
+        // Run the comparison on the bulkhead pool so the servlet thread is released while it works
+        CompletableFuture<String> comparison = comparisonBulkhead.submit(resolveClientId(request), () -> {
+            specCompareService.compareSpecifications(jarSpecUrl, liveApiSpecUrl);
+            return "Comparison completed. Check the logs for results.";
+        });
 
-        // Call the service to compare specifications
-        specCompareService.compareSpecifications(jarSpecUrl, liveApiSpecUrl);
+        // Nobody is waiting for the answer any more, so drop the comparison if it has not started.
+        // The 503 is set first since DeferredResult keeps only the first result it is given
+        result.onTimeout(() -> {
+            result.setErrorResult(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Comparison did not complete within " + bulkheadProperties.getRequestTimeout()));
+            comparison.cancel(false);
+        });
+        result.onError(error -> comparison.cancel(false));
+
+        comparison.whenComplete((value, error) -> {
+            if (error == null) {
+                result.setResult(value);
+            } else if (!(error instanceof CancellationException)) {
+                result.setErrorResult(error);
+            }
+        });
+        return result;
+    }
 
-        return "Comparison completed. Check the logs for results.";
+    private String resolveClientId(HttpServletRequest request) {
+        if (!bulkheadProperties.isTrustClientIdHeader()) {
+            return request.getRemoteAddr();
+        }
+        String clientId = request.getHeader(bulkheadProperties.getClientIdHeader());
+        return clientId == null || clientId.isBlank() ? request.getRemoteAddr() : clientId;
     }
 }
@@ -0,0 +1,200 @@
+package uk.co.sainsburys.breakingchangedetect.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import uk.co.sainsburys.breakingchangedetect.config.ComparisonBulkheadProperties;
+
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs comparisons on a dedicated, bounded pool instead of the shared servlet threads.
+ * <p>
+ * A request is rejected straight away when
+ * <li>its client already holds its quota of running or waiting comparisons (429)</li>
+ * <li>every slot is busy and the wait queue is full (503)</li>
+ * </p>
+ * Cancelling the returned future drops the comparison from the queue and releases the client's quota
+ * if it has not started yet. A comparison that is already running keeps its slot and its quota until it
+ * finishes, so the per-client limit always matches the work actually on the pool.
+ */
+@Component
+public class ComparisonBulkhead {
+
+    private static final Logger logger = LoggerFactory.getLogger(ComparisonBulkhead.class);
+
+    private final ComparisonBulkheadProperties properties;
+
+    private final ThreadPoolExecutor executor;
+
+    private final Map<String, Integer> inFlightByClient = new ConcurrentHashMap<>();
+
+    private final Counter queueFullRejections;
+
+    private final Counter clientQuotaRejections;
+
+    private final Counter cancellations;
+
+    @Autowired
+    public ComparisonBulkhead(ComparisonBulkheadProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        BlockingQueue<Runnable> queue = properties.getQueueCapacity() == 0
+                ? new SynchronousQueue<>()
+                : new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        this.executor = new ThreadPoolExecutor(
+                properties.getMaxConcurrent(),
+                properties.getMaxConcurrent(),
+                0L, TimeUnit.MILLISECONDS,
+                queue,
+                comparisonThreadFactory(),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("comparison.bulkhead.queue.depth", executor, e -> e.getQueue().size())
+                .description("Comparisons waiting for a free slot")
+                .register(meterRegistry);
+        Gauge.builder("comparison.bulkhead.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Comparisons currently running")
+                .register(meterRegistry);
+        this.queueFullRejections = Counter.builder("comparison.bulkhead.rejected")
+                .description("Comparisons rejected by admission control")
+                .tag("reason", "queue_full")
+                .register(meterRegistry);
+        this.clientQuotaRejections = Counter.builder("comparison.bulkhead.rejected")
+                .description("Comparisons rejected by admission control")
+                .tag("reason", "client_quota")
+                .register(meterRegistry);
+        this.cancellations = Counter.builder("comparison.bulkhead.cancelled")
+                .description("Admitted comparisons abandoned by timeout or client disconnect")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Admits a comparison for the given client, or rejects it without blocking.
+     *
+     * @param clientId The caller the per-client quota is charged to.
+     * @param task     The comparison to run.
+     * @return A future completed with the task result on the comparison pool.
+     * @throws ResponseStatusException with 429 or 503 when the comparison is not admitted.
+     */
+    public <T> CompletableFuture<T> submit(String clientId, Supplier<T> task) {
+        if (!acquire(clientId)) {
+            clientQuotaRejections.increment();
+            // Counted by comparison.bulkhead.rejected, so keep bursts of rejections out of the log
+            logger.debug("Rejected comparison for client {}: per-client quota reached", clientId);
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS,
+                    "Too many comparisons in flight for client " + clientId);
+        }
+
+        Admission<T> admission = new Admission<>(clientId, task);
+        admission.future.whenComplete((result, error) -> {
+            if (error instanceof CancellationException) {
+                cancellations.increment();
+                admission.cancelIfNotStarted();
+            }
+        });
+
+        try {
+            executor.execute(admission);
+        } catch (RejectedExecutionException e) {
+            release(clientId);
+            queueFullRejections.increment();
+            logger.debug("Rejected comparison for client {}: comparison queue is full", clientId);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Comparison capacity exhausted, retry later", e);
+        }
+        return admission.future;
+    }
+
+    int trackedClients() {
+        return inFlightByClient.size();
+    }
+
+    private boolean acquire(String clientId) {
+        boolean[] admitted = {false};
+        inFlightByClient.compute(clientId, (key, inFlight) -> {
+            int current = inFlight == null ? 0 : inFlight;
+            if (current >= properties.getPerClientMaxConcurrent()) {
+                return inFlight;
+            }
+            admitted[0] = true;
+            return current + 1;
+        });
+        return admitted[0];
+    }
+
+    private void release(String clientId) {
+        // Drop idle clients so the map does not grow with every caller ever seen
+        inFlightByClient.computeIfPresent(clientId, (key, inFlight) -> inFlight <= 1 ? null : inFlight - 1);
+    }
+
+    /**
+     * One admitted comparison. Whichever of {@link #run()} and {@link #cancelIfNotStarted()} claims it first owns
+     * the quota release: the worker after the task finishes (before completing the future, so callers observe the
+     * quota as free), or the cancellation when the task never started.
+     */
+    private final class Admission<T> implements Runnable {
+
+        private final String clientId;
+
+        private final Supplier<T> task;
+
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+
+        private final AtomicBoolean started = new AtomicBoolean();
+
+        private Admission(String clientId, Supplier<T> task) {
+            this.clientId = clientId;
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            if (!started.compareAndSet(false, true)) {
+                // Cancelled while queued
+                return;
+            }
+            T result;
+            try {
+                result = task.get();
+            } catch (Throwable e) {
+                release(clientId);
+                future.completeExceptionally(e);
+                return;
+            }
+            release(clientId);
+            future.complete(result);
+        }
+
+        private void cancelIfNotStarted() {
+            if (started.compareAndSet(false, true)) {
+                executor.remove(this);
+                release(clientId);
+            }
+        }
+    }
+
+    private static ThreadFactory comparisonThreadFactory() {
+        AtomicInteger sequence = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "comparison-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
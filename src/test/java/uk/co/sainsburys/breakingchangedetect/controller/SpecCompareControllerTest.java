@@ -0,0 +1,122 @@
+package uk.co.sainsburys.breakingchangedetect.controller;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.annotation.DirtiesContext;
+import uk.co.sainsburys.breakingchangedetect.service.SpecCompareService;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * Exercises admission control through the real endpoint, with comparisons held open by a latch.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "comparison.bulkhead.max-concurrent=1",
+        "comparison.bulkhead.queue-capacity=1",
+        "comparison.bulkhead.per-client-max-concurrent=1",
+        "comparison.bulkhead.request-timeout=2s",
+        "comparison.bulkhead.trust-client-id-header=true",
+        "comparison.spec-fetch.connect-timeout=100ms",
+        "comparison.spec-fetch.read-timeout=500ms"
+})
+// Comparisons left running by one test would otherwise hold the single slot in the next
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class SpecCompareControllerTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @MockBean
+    private SpecCompareService specCompareService;
+
+    private final CountDownLatch started = new CountDownLatch(1);
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        doAnswer(invocation -> {
+            started.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return List.of();
+        }).when(specCompareService).compareSpecifications(any(), any());
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+    }
+
+    @Test
+    void returnsComparisonResult() {
+        release.countDown();
+
+        ResponseEntity<String> response = compare("a");
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo("Comparison completed. Check the logs for results.");
+    }
+
+    @Test
+    void returns503WhenComparisonTimesOut() {
+        ResponseEntity<String> response = compare("a");
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @Test
+    void returns429WhenClientIsOverQuota() throws InterruptedException {
+        CompletableFuture.runAsync(() -> compare("a"));
+        assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(compare("a").getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+    }
+
+    @Test
+    void returns503WhenQueueIsFull() throws InterruptedException {
+        CompletableFuture.runAsync(() -> compare("a"));
+        assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture.runAsync(() -> compare("b"));
+        awaitQueueDepth(1);
+
+        assertThat(compare("c").getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(meterRegistry.get("comparison.bulkhead.rejected").tag("reason", "queue_full").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    private ResponseEntity<String> compare(String clientId) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-Client-Id", clientId);
+        return restTemplate.exchange("/api/comparison/compare", HttpMethod.GET, new HttpEntity<>(headers), String.class);
+    }
+
+    private void awaitQueueDepth(int depth) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (meterRegistry.get("comparison.bulkhead.queue.depth").gauge().value() < depth
+                && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(meterRegistry.get("comparison.bulkhead.queue.depth").gauge().value()).isEqualTo(depth);
+    }
+}
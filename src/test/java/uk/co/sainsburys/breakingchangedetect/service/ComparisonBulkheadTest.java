@@ -0,0 +1,149 @@
+package uk.co.sainsburys.breakingchangedetect.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import uk.co.sainsburys.breakingchangedetect.config.ComparisonBulkheadProperties;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ComparisonBulkheadTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private ComparisonBulkhead bulkhead;
+
+    @BeforeEach
+    void setUp() {
+        ComparisonBulkheadProperties properties = new ComparisonBulkheadProperties();
+        properties.setMaxConcurrent(1);
+        properties.setQueueCapacity(1);
+        properties.setPerClientMaxConcurrent(1);
+        bulkhead = new ComparisonBulkhead(properties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        bulkhead.shutdown();
+    }
+
+    @Test
+    void rejectsClientOverQuotaWith429() {
+        bulkhead.submit("a", blocked());
+
+        assertRejected(() -> bulkhead.submit("a", blocked()), HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(rejections("client_quota")).isEqualTo(1.0);
+        assertThat(rejections("queue_full")).isZero();
+    }
+
+    @Test
+    void rejectsWhenQueueIsFullWith503() {
+        bulkhead.submit("a", blocked());
+        bulkhead.submit("b", blocked());
+
+        assertRejected(() -> bulkhead.submit("c", blocked()), HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(rejections("queue_full")).isEqualTo(1.0);
+        assertThat(rejections("client_quota")).isZero();
+    }
+
+    @Test
+    void releasesQuotaWhenTaskThrows() {
+        CompletableFuture<String> failed = bulkhead.submit("a", () -> {
+            throw new IllegalStateException("spec server unavailable");
+        });
+
+        assertThatThrownBy(failed::join).isInstanceOf(CompletionException.class);
+        assertThat(bulkhead.submit("a", () -> "ok").join()).isEqualTo("ok");
+    }
+
+    @Test
+    void releasesQuotaAndSkipsTaskWhenCancelledWhileQueued() {
+        bulkhead.submit("a", blocked());
+        AtomicBoolean ran = new AtomicBoolean();
+        CompletableFuture<String> queued = bulkhead.submit("b", () -> {
+            ran.set(true);
+            return "late";
+        });
+
+        queued.cancel(false);
+
+        // The queue slot and b's quota are both free again
+        CompletableFuture<String> next = bulkhead.submit("b", () -> "ok");
+        release.countDown();
+        assertThat(next.join()).isEqualTo("ok");
+        assertThat(ran).isFalse();
+        assertThat(meterRegistry.get("comparison.bulkhead.cancelled").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void keepsQuotaOfRunningComparisonUntilItFinishes() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<String> running = bulkhead.submit("a", () -> {
+            started.countDown();
+            return blocked().get();
+        });
+        assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+
+        running.cancel(false);
+
+        assertRejected(() -> bulkhead.submit("a", () -> "ok"), HttpStatus.TOO_MANY_REQUESTS);
+        release.countDown();
+        awaitNoTrackedClients();
+        assertThat(bulkhead.submit("a", () -> "ok").join()).isEqualTo("ok");
+    }
+
+    @Test
+    void forgetsIdleClients() {
+        CompletableFuture<String> first = bulkhead.submit("a", blocked());
+        assertThat(bulkhead.trackedClients()).isEqualTo(1);
+
+        release.countDown();
+        first.join();
+
+        assertThat(bulkhead.trackedClients()).isZero();
+    }
+
+    private Supplier<String> blocked() {
+        return () -> {
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "done";
+        };
+    }
+
+    private void awaitNoTrackedClients() throws InterruptedException {
+        // The cancelled future is already complete, so poll for the worker to finish the task
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (bulkhead.trackedClients() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(bulkhead.trackedClients()).isZero();
+    }
+
+    private double rejections(String reason) {
+        return meterRegistry.get("comparison.bulkhead.rejected").tag("reason", reason).counter().count();
+    }
+
+    private static void assertRejected(Runnable submission, HttpStatus status) {
+        assertThatThrownBy(submission::run)
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(status));
+    }
+}